@@ -0,0 +1,263 @@
+package org.rmm.rsql;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import cz.jirutka.rsql.parser.ast.Node;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Asynchronous facade over {@link RsqlFilterTool}.
+ * <p>
+ * Filters run on the provided executor, or by default on virtual threads where the JVM supports them and on a pool
+ * of {@code maxConcurrentScans} platform threads otherwise. At most {@code maxConcurrentScans} collections are scanned
+ * at once. A scan is only handed to the executor once it holds a permit. Further requests wait in an unbounded queue
+ * inside this tool without occupying an executor thread, and each finishing scan submits the next queued one.
+ * <p>
+ * Requests made with a data version are coalesced: while a request is running, any other request for the same data
+ * version and an equivalent filter shares its result rather than scanning again. Filters are equivalent when they parse
+ * to the same tree, so whitespace and {@code and} / {@code ;} differences do not prevent sharing.
+ *
+ * @author Rob McMurray
+ */
+@Slf4j
+public class RsqlAsyncFilterTool implements AutoCloseable {
+
+    /**
+     * The tool performing the filtering.
+     */
+    private final RsqlFilterTool filterTool;
+
+    /**
+     * The executor the scans run on.
+     */
+    private final Executor executor;
+
+    /**
+     * The executor created by this tool, shut down on {@link #close()}. Null if the executor was provided.
+     */
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Permits for the scans allowed to run at once.
+     */
+    private final Semaphore scanPermits;
+
+    /**
+     * The scans waiting for a permit, in request order.
+     */
+    private final Queue<Runnable> pendingScans = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The coalesced requests currently running.
+     */
+    private final ConcurrentMap<CoalescingKey, CompletableFuture<List<?>>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor, allowing one concurrent scan per available processor on the default executor.
+     *
+     * @param filterTool    The tool performing the filtering.
+     */
+    public RsqlAsyncFilterTool(@NonNull RsqlFilterTool filterTool) {
+        this(filterTool, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor, using the default executor.
+     *
+     * @param filterTool    The tool performing the filtering.
+     * @param maxConcurrentScans    The maximum number of collections scanned at once.
+     */
+    public RsqlAsyncFilterTool(@NonNull RsqlFilterTool filterTool, int maxConcurrentScans) {
+        this(filterTool, defaultExecutor(maxConcurrentScans), maxConcurrentScans, true);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param filterTool    The tool performing the filtering.
+     * @param executor  The executor the scans run on. Not shut down by {@link #close()}.
+     * @param maxConcurrentScans    The maximum number of collections scanned at once.
+     */
+    public RsqlAsyncFilterTool(@NonNull RsqlFilterTool filterTool, @NonNull Executor executor, int maxConcurrentScans) {
+        this(filterTool, executor, maxConcurrentScans, false);
+    }
+
+    private RsqlAsyncFilterTool(RsqlFilterTool filterTool, Executor executor, int maxConcurrentScans, boolean ownsExecutor) {
+        if (maxConcurrentScans < 1) {
+            throw new IllegalArgumentException("maxConcurrentScans must be at least 1");
+        }
+        this.filterTool = filterTool;
+        this.executor = executor;
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+        this.scanPermits = new Semaphore(maxConcurrentScans);
+    }
+
+    /**
+     * Asynchronously filters the provided collection against the provided RSQL filter string.
+     * No coalescing is performed, as the collection contents are not identified.
+     *
+     * @param allValues The collection being filtered.
+     * @param rsqlFilter    The RSQL filter string.
+     * @return  A future of the filtered list of elements that met the filters requirements.
+     * @param <T>   The type of objects stored in the collection and returned by the filter.
+     */
+    public <T> CompletableFuture<List<T>> filter(@NonNull Collection<T> allValues, String rsqlFilter) {
+        Node parsedNode;
+        try {
+            parsedNode = filterTool.parseRsql(rsqlFilter);
+        }
+        catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        submitScan(allValues, parsedNode, result, null);
+        return result;
+    }
+
+    /**
+     * Asynchronously filters the provided collection against the provided RSQL filter string, sharing the result with
+     * any running request for the same data version and an equivalent filter.
+     *
+     * @param allValues The collection being filtered.
+     * @param rsqlFilter    The RSQL filter string.
+     * @param dataVersion   Identifies the contents of the collection. Must change whenever the contents change, and
+     *                      must not be shared by different collections.
+     * @return  A future of the filtered list of elements that met the filters requirements.
+     * @param <T>   The type of objects stored in the collection and returned by the filter.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<List<T>> filter(@NonNull Collection<T> allValues, String rsqlFilter, @NonNull Object dataVersion) {
+        Node parsedNode;
+        try {
+            parsedNode = filterTool.parseRsql(rsqlFilter);
+        }
+        catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        CoalescingKey key = new CoalescingKey(dataVersion, parsedNode);
+        CompletableFuture<List<?>> created = new CompletableFuture<>();
+        CompletableFuture<List<?>> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            log.debug("Coalescing filter [{}] onto running request for data version [{}]", parsedNode, dataVersion);
+            return (CompletableFuture<List<T>>) (CompletableFuture<?>) running.copy();
+        }
+
+        submitScan(allValues, parsedNode, (CompletableFuture<List<T>>) (CompletableFuture<?>) created, key);
+        return (CompletableFuture<List<T>>) (CompletableFuture<?>) created.copy();
+    }
+
+    /**
+     * Shuts down the default executor, if this tool created it. Scans already submitted are allowed to finish.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Queues the scan of the provided collection, completing the provided future with its outcome once it has run.
+     *
+     * @param key   The coalescing key the future is registered under, or null if not coalesced.
+     */
+    private <T> void submitScan(Collection<T> allValues, Node parsedNode, CompletableFuture<List<T>> result, CoalescingKey key) {
+        pendingScans.add(() -> {
+            try {
+                executor.execute(() -> runScan(allValues, parsedNode, result, key));
+            }
+            catch (RejectedExecutionException ex) {
+                scanPermits.release();
+                completeScan(key, result, null, ex);
+            }
+        });
+        startPendingScans();
+    }
+
+    /**
+     * Hands queued scans to the executor for as long as permits are available.
+     * Called after queueing a scan and after each scan finishes, so a scan queued while another releases its permit
+     * is always picked up by one of the two.
+     */
+    private void startPendingScans() {
+        while (!pendingScans.isEmpty() && scanPermits.tryAcquire()) {
+            Runnable submission = pendingScans.poll();
+            if (submission == null) {
+                scanPermits.release();
+            } else {
+                submission.run();
+            }
+        }
+    }
+
+    /**
+     * Runs the scan, which already holds a permit, then releases the permit to the next queued scan.
+     */
+    private <T> void runScan(Collection<T> allValues, Node parsedNode, CompletableFuture<List<T>> result, CoalescingKey key) {
+        try {
+            completeScan(key, result, filterTool.filter(allValues, parsedNode), null);
+        }
+        catch (RuntimeException | Error ex) {
+            completeScan(key, result, null, ex);
+        }
+        finally {
+            scanPermits.release();
+            startPendingScans();
+        }
+    }
+
+    /**
+     * Completes the future, first removing it from the running requests so later requests start a fresh scan.
+     */
+    private <T> void completeScan(CoalescingKey key, CompletableFuture<List<T>> result, List<T> values, Throwable failure) {
+        if (key != null) {
+            inFlight.remove(key, result);
+        }
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(values);
+        }
+    }
+
+    /**
+     * Creates a virtual thread per task executor if the JVM supports virtual threads, otherwise a fixed pool of daemon
+     * platform threads.
+     */
+    private static ExecutorService defaultExecutor(int maxConcurrentScans) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException | UnsupportedOperationException ex) {
+            log.debug("Virtual threads unavailable, using a pool of [{}] platform threads", maxConcurrentScans);
+            return Executors.newFixedThreadPool(maxConcurrentScans, new ThreadFactoryBuilder()
+                    .setNameFormat("rsql-scan-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+    }
+
+    /**
+     * Identifies requests that can share a single scan.
+     *
+     * @param dataVersion   The caller provided version of the collection contents.
+     * @param parsedNode    The parsed filter, compared structurally.
+     */
+    private record CoalescingKey(Object dataVersion, Node parsedNode) {
+    }
+
+}
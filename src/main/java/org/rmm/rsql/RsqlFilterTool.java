@@ -6,11 +6,15 @@ import cz.jirutka.rsql.parser.RSQLParser;
 import cz.jirutka.rsql.parser.ast.ComparisonOperator;
 import cz.jirutka.rsql.parser.ast.Node;
 import cz.jirutka.rsql.parser.ast.RSQLOperators;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.rmm.rsql.plan.RsqlQueryPlan;
+import org.rmm.rsql.plan.RsqlQueryPlanner;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
@@ -25,15 +29,32 @@ public class RsqlFilterTool {
     /**
      * The RSQL parser for interpreting the query strings.
      */
-    private final RSQLParser parser;
+    private final Function<String, Node> parser;
 
     /**
-     * Constructor
+     * The planner for explaining and profiling filters.
+     */
+    private final RsqlQueryPlanner planner = new RsqlQueryPlanner();
+
+    /**
+     * Constructor, using the rsql-parser {@link RSQLParser}.
      */
     public RsqlFilterTool() {
+        this(RsqlParserType.RSQL_PARSER);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param parserType    The parser implementation used to interpret the query strings.
+     */
+    public RsqlFilterTool(@NonNull RsqlParserType parserType) {
         Set<ComparisonOperator> supportedOperators = RSQLOperators.defaultOperators();
         supportedOperators.add(RsqlCustomOperators.LIKE);
-        parser = new RSQLParser(supportedOperators);
+        parser = switch (parserType) {
+            case RSQL_PARSER -> new RSQLParser(supportedOperators)::parse;
+            case RECURSIVE_DESCENT -> new RsqlRecursiveDescentParser(supportedOperators)::parse;
+        };
     }
 
     /**
@@ -46,7 +67,18 @@ public class RsqlFilterTool {
      */
     public <T> List<T> filter(Collection<T> allValues, String rsqlFilter) {
         Node parsedNode = parseRsql(rsqlFilter); //Possibly try-catch this and just log.warn and return full list on error?
+        return filter(allValues, parsedNode);
+    }
 
+    /**
+     * Filters the provided collection against an already parsed RSQL filter.
+     *
+     * @param allValues The collection being filtered.
+     * @param parsedNode    The {@link Node} parsed from the RSQL filter string.
+     * @return  A filtered list of elements that met the filters requirements.
+     * @param <T>   The type of objects stored in the collection and returned by the filter.
+     */
+    <T> List<T> filter(Collection<T> allValues, Node parsedNode) {
         Predicate<T> filterPredicate = interpretToPredicate(parsedNode);
 
         return allValues.stream()
@@ -54,15 +86,38 @@ public class RsqlFilterTool {
                 .toList();
     }
 
+    /**
+     * Explains how the provided RSQL filter string would be evaluated, without running it.
+     *
+     * @param rsqlFilter    The RSQL filter string.
+     * @return  The {@link RsqlQueryPlan} for the filter.
+     */
+    public RsqlQueryPlan explain(String rsqlFilter) {
+        return planner.explain(rsqlFilter, parseRsql(rsqlFilter));
+    }
+
+    /**
+     * Filters the provided collection against the provided RSQL filter string, recording the invocations, passes and
+     * time spent on every node of the filter.
+     *
+     * @param allValues The collection being filtered.
+     * @param rsqlFilter    The RSQL filter string.
+     * @return  The {@link RsqlQueryPlan} for the filter, populated with the execution counters.
+     * @param <T>   The type of objects stored in the collection.
+     */
+    public <T> RsqlQueryPlan profile(Collection<T> allValues, String rsqlFilter) {
+        return planner.profile(allValues, rsqlFilter, parseRsql(rsqlFilter));
+    }
+
     /**
      * Parses the RSQL string into a {@link Node}
      *
      * @param rsqlFilter    The RSQL filter string.
      * @return  The parsed {@link Node}
      */
-    private Node parseRsql(String rsqlFilter) {
-        Node node = parser.parse(rsqlFilter);
-        log.info("Node: {}", node.toString());
+    Node parseRsql(String rsqlFilter) {
+        Node node = parser.apply(rsqlFilter);
+        log.info("Node: {}", node);
         return node;
     }
 
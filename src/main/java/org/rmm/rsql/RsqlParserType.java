@@ -0,0 +1,17 @@
+package org.rmm.rsql;
+
+/**
+ * The parser implementations available to {@link RsqlFilterTool} for interpreting RSQL query strings.
+ *
+ * @author Rob McMurray
+ */
+public enum RsqlParserType {
+    /**
+     * The JavaCC generated {@link cz.jirutka.rsql.parser.RSQLParser} from rsql-parser.
+     */
+    RSQL_PARSER,
+    /**
+     * The hand-written {@link RsqlRecursiveDescentParser}. Accepts the same grammar with far fewer allocations.
+     */
+    RECURSIVE_DESCENT
+}
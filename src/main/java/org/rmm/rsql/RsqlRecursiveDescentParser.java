@@ -0,0 +1,531 @@
+package org.rmm.rsql;
+
+import cz.jirutka.rsql.parser.ParseException;
+import cz.jirutka.rsql.parser.RSQLParser;
+import cz.jirutka.rsql.parser.RSQLParserException;
+import cz.jirutka.rsql.parser.UnknownOperatorException;
+import cz.jirutka.rsql.parser.ast.ComparisonOperator;
+import cz.jirutka.rsql.parser.ast.LogicalOperator;
+import cz.jirutka.rsql.parser.ast.Node;
+import cz.jirutka.rsql.parser.ast.NodesFactory;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hand-written recursive descent alternative to the JavaCC generated {@link RSQLParser}.
+ * Accepts exactly the same grammar and produces the same {@link Node} tree, but tokenizes directly over the query string
+ * without a char stream, token objects or lookahead bookkeeping, which matters for long filters with many arguments.
+ * <p>
+ * Errors are thrown as an {@link RSQLParserException} wrapping a {@link ParseException} whose message (including line
+ * and column) matches the one produced by {@link RSQLParser}. Unknown operators and invalid argument counts are
+ * reported exactly as {@link RSQLParser} reports them, as both are delegated to the same {@link NodesFactory}.
+ *
+ * @author Rob McMurray
+ */
+public class RsqlRecursiveDescentParser {
+
+    /*
+     *   Token kinds, numbered as in the rsql-parser grammar so expected token lists are ordered identically.
+     */
+    private static final int EOF = 0;
+    private static final int UNRESERVED_STR = 5;
+    private static final int SINGLE_QUOTED_STR = 6;
+    private static final int DOUBLE_QUOTED_STR = 7;
+    private static final int AND = 8;
+    private static final int OR = 9;
+    private static final int LPAREN = 10;
+    private static final int RPAREN = 11;
+    private static final int COMP_FIQL = 12;
+    private static final int COMP_ALT = 13;
+
+    /**
+     * Token images used in error messages, indexed by token kind.
+     */
+    private static final String[] TOKEN_IMAGE = {
+            "<EOF>", "\" \"", "\"\\t\"", "<ALPHA>", "<ESCAPED_CHAR>", "<UNRESERVED_STR>", "<SINGLE_QUOTED_STR>",
+            "<DOUBLE_QUOTED_STR>", "<AND>", "<OR>", "\"(\"", "\")\"", "<COMP_FIQL>", "<COMP_ALT>"
+    };
+
+    /**
+     * Tab width used by the JavaCC char stream when computing error columns.
+     */
+    private static final int TAB_SIZE = 8;
+
+    /**
+     * Factory for the parsed nodes, also responsible for resolving operators.
+     */
+    private final NodesFactory nodesFactory;
+
+    /**
+     * Constructor
+     *
+     * @param operators The set of {@link ComparisonOperator} this parser will accept.
+     */
+    public RsqlRecursiveDescentParser(@NonNull Set<ComparisonOperator> operators) {
+        nodesFactory = new NodesFactory(operators);
+    }
+
+    /**
+     * Parses the RSQL string into a {@link Node}
+     *
+     * @param query The RSQL query string.
+     * @return  The parsed {@link Node}
+     * @throws RSQLParserException  If the query is not valid RSQL or uses an unsupported operator.
+     */
+    public Node parse(String query) {
+        if (query == null) {
+            throw new IllegalArgumentException("query must not be null");
+        }
+        try {
+            return new QueryParser(query).input();
+        }
+        catch (Exception ex) {
+            throw new RSQLParserException(ex);
+        }
+    }
+
+    /**
+     * Single use parser state over one query string. The current token is held as a kind and a start/end offset into
+     * the query, and is only read when the grammar needs to look at it.
+     */
+    private class QueryParser {
+
+        private final String query;
+
+        /**
+         * Offset of the next character to be tokenized.
+         */
+        private int position;
+
+        /**
+         * Kind of the current token, or -1 if the next token has not been read yet.
+         */
+        private int tokenKind = -1;
+        private int tokenStart;
+        private int tokenEnd;
+
+        /**
+         * Set when the current quoted string token contains an escape sequence.
+         */
+        private boolean tokenEscaped;
+
+        QueryParser(String query) {
+            this.query = query;
+        }
+
+        /*
+         *   Grammar
+         */
+
+        /**
+         * Input: Or EOF
+         */
+        Node input() throws ParseException, UnknownOperatorException {
+            Node node = or();
+            if (peek() != EOF) {
+                throw parseError(EOF, AND, OR);
+            }
+            return node;
+        }
+
+        /**
+         * Or: And ( OR And )*
+         */
+        private Node or() throws ParseException, UnknownOperatorException {
+            Node node = and();
+            if (peek() != OR) {
+                return node;
+            }
+            List<Node> nodes = new ArrayList<>(3);
+            nodes.add(node);
+            while (peek() == OR) {
+                consume();
+                nodes.add(and());
+            }
+            return nodesFactory.createLogicalNode(LogicalOperator.OR, nodes);
+        }
+
+        /**
+         * And: Constraint ( AND Constraint )*
+         */
+        private Node and() throws ParseException, UnknownOperatorException {
+            Node node = constraint();
+            if (peek() != AND) {
+                return node;
+            }
+            List<Node> nodes = new ArrayList<>(3);
+            nodes.add(node);
+            while (peek() == AND) {
+                consume();
+                nodes.add(constraint());
+            }
+            return nodesFactory.createLogicalNode(LogicalOperator.AND, nodes);
+        }
+
+        /**
+         * Constraint: "(" Or ")" | Comparison
+         */
+        private Node constraint() throws ParseException, UnknownOperatorException {
+            int kind = peek();
+            if (kind == LPAREN) {
+                consume();
+                Node node = or();
+                if (peek() != RPAREN) {
+                    throw parseError(AND, OR, RPAREN);
+                }
+                consume();
+                return node;
+            }
+            if (kind == UNRESERVED_STR) {
+                return comparison();
+            }
+            throw parseError(UNRESERVED_STR, LPAREN);
+        }
+
+        /**
+         * Comparison: UNRESERVED_STR ( COMP_FIQL | COMP_ALT ) Arguments
+         */
+        private Node comparison() throws ParseException, UnknownOperatorException {
+            String selector = tokenImage();
+            consume();
+
+            int kind = peek();
+            if (kind != COMP_FIQL && kind != COMP_ALT) {
+                throw parseError(COMP_FIQL, COMP_ALT);
+            }
+            String operator = tokenImage();
+            consume();
+
+            List<String> arguments;
+            if (peek() == LPAREN) {
+                consume();
+                arguments = new ArrayList<>();
+                arguments.add(argument(UNRESERVED_STR, SINGLE_QUOTED_STR, DOUBLE_QUOTED_STR));
+                while (peek() == OR) {
+                    consume();
+                    arguments.add(argument(UNRESERVED_STR, SINGLE_QUOTED_STR, DOUBLE_QUOTED_STR));
+                }
+                if (peek() != RPAREN) {
+                    throw parseError(OR, RPAREN);
+                }
+                consume();
+            } else {
+                arguments = Collections.singletonList(argument(UNRESERVED_STR, SINGLE_QUOTED_STR, DOUBLE_QUOTED_STR, LPAREN));
+            }
+            return nodesFactory.createComparisonNode(operator, selector, arguments);
+        }
+
+        /**
+         * Argument: UNRESERVED_STR | SINGLE_QUOTED_STR | DOUBLE_QUOTED_STR
+         *
+         * @param expected  The token kinds reported as expected should the current token not be an argument.
+         */
+        private String argument(int... expected) throws ParseException {
+            int kind = peek();
+            String argument;
+            if (kind == UNRESERVED_STR) {
+                argument = tokenImage();
+            } else if (kind == SINGLE_QUOTED_STR || kind == DOUBLE_QUOTED_STR) {
+                argument = tokenEscaped
+                        ? unescape(tokenStart + 1, tokenEnd - 1)
+                        : query.substring(tokenStart + 1, tokenEnd - 1);
+            } else {
+                throw parseError(expected);
+            }
+            consume();
+            return argument;
+        }
+
+        /*
+         *   Tokenizer
+         */
+
+        /**
+         * Reads the next token if not already read.
+         *
+         * @return  The kind of the current token.
+         */
+        private int peek() throws ParseException {
+            if (tokenKind < 0) {
+                readToken();
+            }
+            return tokenKind;
+        }
+
+        /**
+         * Marks the current token as consumed.
+         */
+        private void consume() {
+            tokenKind = -1;
+        }
+
+        private String tokenImage() {
+            return query.substring(tokenStart, tokenEnd);
+        }
+
+        /**
+         * Reads the next token from the query, skipping whitespace.
+         * As in the JavaCC grammar a tab is only skipped when it is not part of a longer unreserved string, and the
+         * spaces surrounding the {@code and} / {@code or} keywords are part of the token.
+         */
+        private void readToken() throws ParseException {
+            int length = query.length();
+            while (position < length) {
+                char c = query.charAt(position);
+                switch (c) {
+                    case ' ' -> {
+                        if (query.startsWith(" and ", position)) {
+                            token(AND, position + 5);
+                        } else if (query.startsWith(" or ", position)) {
+                            token(OR, position + 4);
+                        } else {
+                            position++;
+                            continue;
+                        }
+                    }
+                    case ';' -> token(AND, position + 1);
+                    case ',' -> token(OR, position + 1);
+                    case '(' -> token(LPAREN, position + 1);
+                    case ')' -> token(RPAREN, position + 1);
+                    case '\'' -> quotedString(SINGLE_QUOTED_STR, '\'');
+                    case '"' -> quotedString(DOUBLE_QUOTED_STR, '"');
+                    case '=' -> {
+                        int end = position + 1;
+                        while (end < length && isAlpha(query.charAt(end))) {
+                            end++;
+                        }
+                        if (end == length || query.charAt(end) != '=') {
+                            throw lexicalError(end);
+                        }
+                        token(COMP_FIQL, end + 1);
+                    }
+                    case '!' -> {
+                        if (position + 1 == length || query.charAt(position + 1) != '=') {
+                            throw lexicalError(position + 1);
+                        }
+                        token(COMP_FIQL, position + 2);
+                    }
+                    case '<', '>' -> token(COMP_ALT, position + 1 < length && query.charAt(position + 1) == '=' ? position + 2 : position + 1);
+                    case '~' -> throw lexicalError(position);
+                    default -> {
+                        int end = position + 1;
+                        while (end < length && isUnreserved(query.charAt(end))) {
+                            end++;
+                        }
+                        if (c == '\t' && end == position + 1) {
+                            position++;
+                            continue;
+                        }
+                        token(UNRESERVED_STR, end);
+                    }
+                }
+                return;
+            }
+            tokenKind = EOF;
+            tokenStart = length;
+            tokenEnd = length;
+        }
+
+        /**
+         * Reads a quoted string token starting at the current position, honouring backslash escapes.
+         */
+        private void quotedString(int kind, char quote) throws ParseException {
+            int length = query.length();
+            boolean escaped = false;
+            int end = position + 1;
+            while (end < length) {
+                char c = query.charAt(end);
+                if (c == quote) {
+                    token(kind, end + 1);
+                    tokenEscaped = escaped;
+                    return;
+                }
+                if (c == '\\') {
+                    escaped = true;
+                    end++;
+                }
+                end++;
+            }
+            throw lexicalError(length);
+        }
+
+        private void token(int kind, int end) {
+            tokenKind = kind;
+            tokenStart = position;
+            tokenEnd = end;
+            position = end;
+        }
+
+        /**
+         * Removes the backslash from each escape sequence in the given range of the query.
+         */
+        private String unescape(int start, int end) {
+            StringBuilder sb = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                char c = query.charAt(i);
+                if (c == '\\') {
+                    c = query.charAt(++i);
+                }
+                sb.append(c);
+            }
+            return sb.toString();
+        }
+
+        /*
+         *   Errors
+         */
+
+        /**
+         * Creates a {@link ParseException} for the current token, worded as the JavaCC generated parser words it.
+         *
+         * @param expected  The token kinds that would have been valid at this point, in ascending order.
+         */
+        private ParseException parseError(int... expected) {
+            String eol = System.lineSeparator();
+            StringBuilder message = new StringBuilder("Encountered \"");
+            if (tokenKind == EOF) {
+                message.append(TOKEN_IMAGE[EOF]);
+            } else {
+                message.append(' ').append(TOKEN_IMAGE[tokenKind]).append(" \"").append(escape(tokenImage())).append(" \"");
+            }
+
+            int[] lineColumn = tokenKind == EOF
+                    ? lineColumn(query.length() - 1)
+                    : lineColumn(tokenStart);
+            message.append("\" at line ").append(lineColumn[0]).append(", column ").append(lineColumn[1]).append('.').append(eol)
+                    .append(expected.length == 1 ? "Was expecting:" : "Was expecting one of:").append(eol).append("    ");
+            for (int kind : expected) {
+                message.append(TOKEN_IMAGE[kind]).append(' ');
+                if (kind != EOF) {
+                    message.append("...");
+                }
+                message.append(eol).append("    ");
+            }
+            return new ParseException(message.toString());
+        }
+
+        /**
+         * Creates a {@link ParseException} for a character sequence that does not form a token, worded as the JavaCC
+         * generated token manager words it. Like the token manager, an offending character that is the last in the
+         * query is reported as the end of input, and the characters read so far are only reported when there is more
+         * than one of them.
+         *
+         * @param errorIndex    The index of the offending character, or the query length if the end of the query was reached.
+         */
+        private ParseException lexicalError(int errorIndex) {
+            int length = query.length();
+            int lastRead = Math.min(errorIndex, length - 1);
+            int charsRead = lastRead - position + 1;
+            boolean eofSeen = errorIndex >= length - 1;
+            char errorChar = query.charAt(lastRead);
+
+            int[] lineColumn = lineColumn(lastRead);
+            String encountered;
+            String after;
+            if (eofSeen) {
+                if (errorChar == '\n' || errorChar == '\r') {
+                    lineColumn[0]++;
+                    lineColumn[1] = 0;
+                } else {
+                    lineColumn[1]++;
+                }
+                encountered = "<EOF> ";
+                after = charsRead <= 1 ? "" : query.substring(position, length);
+            } else {
+                encountered = "\"" + escape(String.valueOf(errorChar)) + "\" (" + (int) errorChar + "), ";
+                after = charsRead <= 1 ? "" : query.substring(position, errorIndex);
+            }
+            return new ParseException(String.format("Lexical error at line %d, column %d.  Encountered: %safter : \"%s\"",
+                    lineColumn[0], lineColumn[1], encountered, escape(after)));
+        }
+
+        /**
+         * Computes the line and column of the character at the given index as the JavaCC char stream tracks them.
+         *
+         * @return  The line and column, or {@code [0, 0]} for an index before the start of the query.
+         */
+        private int[] lineColumn(int index) {
+            int line = 1;
+            int column = 0;
+            boolean previousCr = false;
+            boolean previousLf = false;
+            if (index < 0) {
+                return new int[] {0, 0};
+            }
+            for (int i = 0; i <= index; i++) {
+                char c = query.charAt(i);
+                column++;
+                if (previousLf) {
+                    previousLf = false;
+                    line++;
+                    column = 1;
+                } else if (previousCr) {
+                    previousCr = false;
+                    if (c == '\n') {
+                        previousLf = true;
+                    } else {
+                        line++;
+                        column = 1;
+                    }
+                }
+                if (c == '\r') {
+                    previousCr = true;
+                } else if (c == '\n') {
+                    previousLf = true;
+                } else if (c == '\t') {
+                    column--;
+                    column += TAB_SIZE - (column % TAB_SIZE);
+                }
+            }
+            return new int[] {line, column};
+        }
+    }
+
+    /*
+     *   Helper methods
+     */
+
+    private static boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isUnreserved(char c) {
+        return switch (c) {
+            case '"', '\'', '(', ')', ';', ',', '=', '<', '>', '!', '~', ' ' -> false;
+            default -> true;
+        };
+    }
+
+    /**
+     * Escapes the given string as JavaCC does when quoting input in error messages.
+     */
+    private static String escape(String str) {
+        StringBuilder sb = new StringBuilder(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case 0 -> { }
+                case '\b' -> sb.append("\\b");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\f' -> sb.append("\\f");
+                case '\r' -> sb.append("\\r");
+                case '"' -> sb.append("\\\"");
+                case '\'' -> sb.append("\\'");
+                case '\\' -> sb.append("\\\\");
+                default -> {
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
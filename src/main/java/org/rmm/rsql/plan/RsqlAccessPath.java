@@ -0,0 +1,13 @@
+package org.rmm.rsql.plan;
+
+/**
+ * The way a node of a {@link RsqlQueryPlan} reads the filtered collection.
+ *
+ * @author Rob McMurray
+ */
+public enum RsqlAccessPath {
+    /**
+     * Every element of the collection reaching the node is tested against it.
+     */
+    SCAN
+}
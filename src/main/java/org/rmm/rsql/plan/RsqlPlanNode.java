@@ -0,0 +1,108 @@
+package org.rmm.rsql.plan;
+
+import cz.jirutka.rsql.parser.ast.ComparisonNode;
+import cz.jirutka.rsql.parser.ast.LogicalOperator;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A single node of a {@link RsqlQueryPlan}, either a comparison or a logical AND / OR of its children.
+ * The execution counters are only populated when the plan was produced by profiling a query.
+ *
+ * @author Rob McMurray
+ */
+@Getter
+public class RsqlPlanNode {
+
+    /**
+     * The comparison this node tests, or null for a logical node.
+     */
+    private final ComparisonNode comparisonNode;
+
+    /**
+     * The logical operator joining the children, or null for a comparison node.
+     */
+    private final LogicalOperator logicalOperator;
+
+    /**
+     * The child nodes, in evaluation order. Empty for a comparison node.
+     */
+    private final List<RsqlPlanNode> children;
+
+    /**
+     * The 1 based position in which this node is evaluated among its siblings.
+     */
+    private final int evaluationOrder;
+
+    /**
+     * How this node reads the collection.
+     */
+    private final RsqlAccessPath accessPath;
+
+    /**
+     * The estimated fraction of elements reaching this node that will pass it.
+     */
+    private final double estimatedSelectivity;
+
+    /**
+     * Number of elements tested against this node.
+     */
+    private long invocations;
+
+    /**
+     * Number of elements that passed this node.
+     */
+    private long passes;
+
+    /**
+     * Total time spent testing elements against this node, including its children.
+     */
+    private long nanos;
+
+    /**
+     * Constructor
+     */
+    RsqlPlanNode(ComparisonNode comparisonNode, LogicalOperator logicalOperator, List<RsqlPlanNode> children,
+                 int evaluationOrder, RsqlAccessPath accessPath, double estimatedSelectivity) {
+        this.comparisonNode = comparisonNode;
+        this.logicalOperator = logicalOperator;
+        this.children = children;
+        this.evaluationOrder = evaluationOrder;
+        this.accessPath = accessPath;
+        this.estimatedSelectivity = estimatedSelectivity;
+    }
+
+    /**
+     * Records a single test of an element against this node.
+     *
+     * @param passed    Whether the element passed.
+     * @param elapsedNanos  The time taken by the test.
+     */
+    void record(boolean passed, long elapsedNanos) {
+        invocations++;
+        if (passed) {
+            passes++;
+        }
+        nanos += elapsedNanos;
+    }
+
+    /**
+     * Gets the measured fraction of tested elements that passed this node.
+     *
+     * @return  The measured selectivity, or {@link Double#NaN} if the node was never tested.
+     */
+    public double getMeasuredSelectivity() {
+        return invocations == 0 ? Double.NaN : (double) passes / invocations;
+    }
+
+    /**
+     * Gets a readable form of the expression this node tests.
+     *
+     * @return  The comparison, or the logical operator name for a logical node.
+     */
+    public String getExpression() {
+        return comparisonNode != null ? comparisonNode.toString() : logicalOperator.name();
+    }
+
+}
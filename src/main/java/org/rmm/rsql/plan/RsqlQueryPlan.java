@@ -0,0 +1,93 @@
+package org.rmm.rsql.plan;
+
+import lombok.Getter;
+
+/**
+ * The plan for evaluating an RSQL filter, as returned by {@code RsqlFilterTool.explain} and {@code RsqlFilterTool.profile}.
+ * A profiled plan additionally carries the execution counters of each {@link RsqlPlanNode}.
+ *
+ * @author Rob McMurray
+ */
+@Getter
+public class RsqlQueryPlan {
+
+    /**
+     * The RSQL filter string this plan was produced for.
+     */
+    private final String filter;
+
+    /**
+     * The root of the normalized node tree.
+     */
+    private final RsqlPlanNode root;
+
+    /**
+     * Whether the plan was produced by running the query.
+     */
+    private final boolean profiled;
+
+    /**
+     * Number of elements in the filtered collection. Zero unless profiled.
+     */
+    private long rowsScanned;
+
+    /**
+     * Number of elements that met the filter. Zero unless profiled.
+     */
+    private long rowsMatched;
+
+    /**
+     * Total time taken to filter the collection. Zero unless profiled.
+     */
+    private long elapsedNanos;
+
+    /**
+     * Constructor
+     */
+    RsqlQueryPlan(String filter, RsqlPlanNode root, boolean profiled) {
+        this.filter = filter;
+        this.root = root;
+        this.profiled = profiled;
+    }
+
+    /**
+     * Records the outcome of running the query this plan was produced for.
+     */
+    void recordExecution(long rowsScanned, long rowsMatched, long elapsedNanos) {
+        this.rowsScanned = rowsScanned;
+        this.rowsMatched = rowsMatched;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Renders the plan as an indented tree, one node per line.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Filter: ").append(filter).append(System.lineSeparator());
+        if (profiled) {
+            sb.append(String.format("Rows scanned: %d, matched: %d, time: %d ns%n", rowsScanned, rowsMatched, elapsedNanos));
+        }
+        appendNode(sb, root, 0);
+        return sb.toString();
+    }
+
+    private void appendNode(StringBuilder sb, RsqlPlanNode node, int depth) {
+        sb.append("  ".repeat(depth));
+        if (depth > 0) {
+            sb.append(node.getEvaluationOrder()).append(": ");
+        }
+        sb.append(node.getExpression())
+                .append(" [").append(node.getAccessPath()).append(']')
+                .append(String.format(" est. selectivity %.4f", node.getEstimatedSelectivity()));
+        if (profiled) {
+            sb.append(String.format(" | invocations %d, passes %d, selectivity %.4f, %d ns",
+                    node.getInvocations(), node.getPasses(), node.getMeasuredSelectivity(), node.getNanos()));
+        }
+        sb.append(System.lineSeparator());
+        for (RsqlPlanNode child : node.getChildren()) {
+            appendNode(sb, child, depth + 1);
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package org.rmm.rsql.plan;
+
+import cz.jirutka.rsql.parser.ast.ComparisonNode;
+import cz.jirutka.rsql.parser.ast.LogicalNode;
+import cz.jirutka.rsql.parser.ast.LogicalOperator;
+import cz.jirutka.rsql.parser.ast.Node;
+import lombok.NonNull;
+import org.rmm.rsql.RsqlFilterOperators;
+import org.rmm.rsql.SimpleRsqlPredicateBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Produces {@link RsqlQueryPlan} for parsed RSQL filters, and profiles their execution against a collection.
+ * <p>
+ * The plan tree is normalized by merging directly nested logical nodes of the same operator. Children are evaluated in
+ * the order they appear in the filter, each AND / OR stopping at the first child that decides the result, which is also
+ * how {@link SimpleRsqlPredicateBuilder} evaluates a filter. No statistics are kept over the collections, so
+ * selectivity is estimated from the operator alone using textbook defaults.
+ *
+ * @author Rob McMurray
+ */
+public class RsqlQueryPlanner {
+
+    /*
+     *   Default selectivity estimates.
+     */
+    private static final double EQUAL_SELECTIVITY = 0.1;
+    private static final double RANGE_SELECTIVITY = 1.0 / 3;
+    private static final double LIKE_SELECTIVITY = 0.25;
+
+    /**
+     * Produces the plan for the provided parsed filter without running it.
+     *
+     * @param rsqlFilter    The RSQL filter string.
+     * @param parsedNode    The {@link Node} parsed from the filter string.
+     * @return  The plan for the filter.
+     */
+    public RsqlQueryPlan explain(String rsqlFilter, @NonNull Node parsedNode) {
+        return new RsqlQueryPlan(rsqlFilter, planNode(parsedNode, 1), false);
+    }
+
+    /**
+     * Filters the provided collection against the parsed filter, counting the invocations, passes and time of every node.
+     *
+     * @param allValues The collection being filtered.
+     * @param rsqlFilter    The RSQL filter string.
+     * @param parsedNode    The {@link Node} parsed from the filter string.
+     * @return  The plan for the filter, populated with the execution counters.
+     * @param <T>   The type of objects stored in the collection.
+     */
+    public <T> RsqlQueryPlan profile(@NonNull Collection<T> allValues, String rsqlFilter, @NonNull Node parsedNode) {
+        RsqlQueryPlan plan = new RsqlQueryPlan(rsqlFilter, planNode(parsedNode, 1), true);
+        Predicate<T> filterPredicate = profilingPredicate(plan.getRoot(), new SimpleRsqlPredicateBuilder<>());
+
+        long start = System.nanoTime();
+        long matched = allValues.stream()
+                .filter(filterPredicate)
+                .count();
+        plan.recordExecution(allValues.size(), matched, System.nanoTime() - start);
+        return plan;
+    }
+
+    /**
+     * Constructs the normalized plan node for the provided {@link Node}.
+     *
+     * @param node  The {@link Node} being planned.
+     * @param evaluationOrder   The position of the node among its siblings.
+     * @return  The plan node.
+     */
+    private RsqlPlanNode planNode(Node node, int evaluationOrder) {
+        if (node instanceof ComparisonNode cNode) {
+            return new RsqlPlanNode(cNode, null, List.of(), evaluationOrder, RsqlAccessPath.SCAN, estimateSelectivity(cNode));
+        }
+
+        LogicalNode lNode = (LogicalNode) node;
+        List<Node> flattenedChildren = new ArrayList<>();
+        flatten(lNode.getOperator(), lNode, flattenedChildren);
+
+        List<RsqlPlanNode> children = new ArrayList<>(flattenedChildren.size());
+        double selectivity = 1;
+        for (Node child : flattenedChildren) {
+            RsqlPlanNode childPlan = planNode(child, children.size() + 1);
+            children.add(childPlan);
+            selectivity *= lNode.getOperator() == LogicalOperator.AND
+                    ? childPlan.getEstimatedSelectivity()
+                    : 1 - childPlan.getEstimatedSelectivity();
+        }
+        if (lNode.getOperator() == LogicalOperator.OR) {
+            selectivity = 1 - selectivity;
+        }
+        return new RsqlPlanNode(null, lNode.getOperator(), children, evaluationOrder, RsqlAccessPath.SCAN, selectivity);
+    }
+
+    /**
+     * Collects the children of the provided {@link LogicalNode}, replacing any child joined by the same operator with its own children.
+     */
+    private void flatten(LogicalOperator operator, LogicalNode logicalNode, List<Node> result) {
+        for (Node child : logicalNode.getChildren()) {
+            if (child instanceof LogicalNode lChild && lChild.getOperator() == operator) {
+                flatten(operator, lChild, result);
+            } else {
+                result.add(child);
+            }
+        }
+    }
+
+    /**
+     * Estimates the fraction of elements that will pass the provided {@link ComparisonNode}.
+     */
+    private double estimateSelectivity(ComparisonNode comparisonNode) {
+        RsqlFilterOperators operator = RsqlFilterOperators.getSimpleOperator(comparisonNode.getOperator());
+        if (operator == null) {
+            return 1;
+        }
+        double inSelectivity = Math.min(1, EQUAL_SELECTIVITY * comparisonNode.getArguments().size());
+        return switch (operator) {
+            case EQUAL -> EQUAL_SELECTIVITY;
+            case NOT_EQUAL -> 1 - EQUAL_SELECTIVITY;
+            case IN -> inSelectivity;
+            case NOT_IN -> 1 - inSelectivity;
+            case GREATER_THAN, GREATER_THAN_OR_EQUAL, LESS_THAN, LESS_THAN_OR_EQUAL -> RANGE_SELECTIVITY;
+            case LIKE -> LIKE_SELECTIVITY;
+        };
+    }
+
+    /**
+     * Constructs a {@link Predicate} for the provided plan node that records every test made against it.
+     *
+     * @param planNode  The plan node the predicate is built from.
+     * @param predicateBuilder  The builder for the comparison predicates.
+     * @return  The recording {@link Predicate}
+     * @param <T>   The type of object the predicate will be used to filter.
+     */
+    private <T> Predicate<T> profilingPredicate(RsqlPlanNode planNode, SimpleRsqlPredicateBuilder<T> predicateBuilder) {
+        Predicate<T> predicate;
+        if (planNode.getComparisonNode() != null) {
+            predicate = predicateBuilder.build(planNode.getComparisonNode());
+        } else {
+            List<Predicate<T>> childPredicates = planNode.getChildren()
+                    .stream()
+                    .map(child -> profilingPredicate(child, predicateBuilder))
+                    .toList();
+            predicate = childPredicates.get(0);
+            for (int i = 1; i < childPredicates.size(); i++) {
+                predicate = planNode.getLogicalOperator() == LogicalOperator.AND
+                        ? predicate.and(childPredicates.get(i))
+                        : predicate.or(childPredicates.get(i));
+            }
+        }
+
+        Predicate<T> nodePredicate = predicate;
+        return e -> {
+            long start = System.nanoTime();
+            boolean passed = nodePredicate.test(e);
+            planNode.record(passed, System.nanoTime() - start);
+            return passed;
+        };
+    }
+
+}
@@ -0,0 +1,178 @@
+package org.rmm.rsql;
+
+import com.google.common.collect.Lists;
+import cz.jirutka.rsql.parser.RSQLParserException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link RsqlAsyncFilterTool}.
+ *
+ * @author Rob McMurray
+ */
+class RsqlAsyncFilterToolTest {
+    private final QueuedExecutor executor = new QueuedExecutor();
+    private final RsqlAsyncFilterTool tool = new RsqlAsyncFilterTool(new RsqlFilterTool(), executor, 2);
+
+    private final List<TestObjectVO> objects = Lists.newArrayList(
+            TestObjectVO.builder().field1("f1").field2(1).field3(true).build(),
+            TestObjectVO.builder().field1("f2").field2(2).field3(false).build(),
+            TestObjectVO.builder().field1("f3").field2(3).field3(true).build(),
+            TestObjectVO.builder().field1(null).field2(null).field3(null).build()
+    );
+
+    @Test
+    void simpleEquals() throws Exception {
+        CompletableFuture<List<TestObjectVO>> result = tool.filter(objects, "field1==f1");
+        executor.runAll();
+
+        assertThat(result.get().toArray()).isNotEmpty().hasSize(1).containsOnly(objects.get(0));
+    }
+
+    @Test
+    void equivalentFiltersOnSameVersionAreCoalesced() throws Exception {
+        CompletableFuture<List<TestObjectVO>> first = tool.filter(objects, "field1==f1,(field2!=1;field3==false)", 1L);
+        CompletableFuture<List<TestObjectVO>> second = tool.filter(objects, " field1==f1 or (field2!=1 and field3==false)", 1L);
+        assertThat(executor.tasks).hasSize(1);
+        executor.runAll();
+
+        assertThat(first.get().toArray()).hasSize(2).containsOnly(objects.get(0), objects.get(1));
+        assertThat(second.get()).isSameAs(first.get());
+
+        tool.filter(objects, "field1==f1,(field2!=1;field3==false)", 1L);
+        assertThat(executor.tasks).hasSize(1);
+    }
+
+    @Test
+    void differentVersionsAreNotCoalesced() throws Exception {
+        CompletableFuture<List<TestObjectVO>> first = tool.filter(objects, "field1==f1", 1L);
+        CompletableFuture<List<TestObjectVO>> second = tool.filter(objects, "field1==f1", 2L);
+        CompletableFuture<List<TestObjectVO>> third = tool.filter(objects, "field1==f2", 2L);
+        executor.runAll();
+
+        assertThat(second.get()).isNotSameAs(first.get()).isEqualTo(first.get());
+        assertThat(third.get().toArray()).containsOnly(objects.get(1));
+    }
+
+    @Test
+    void filtersWithSameStringFormAreNotCoalesced() throws Exception {
+        CompletableFuture<List<TestObjectVO>> unquoted = tool.filter(objects, "field1=in=(f1,f2,f3)", 1L);
+        CompletableFuture<List<TestObjectVO>> quoted = tool.filter(objects, "field1=in=(\"f1','f2\",f3)", 1L);
+        assertThat(executor.tasks).hasSize(2);
+        executor.runAll();
+
+        assertThat(unquoted.get().toArray()).hasSize(3).containsOnly(objects.get(0), objects.get(1), objects.get(2));
+        assertThat(quoted.get().toArray()).hasSize(1).containsOnly(objects.get(2));
+    }
+
+    @Test
+    void scansBeyondLimitWaitWithoutOccupyingExecutor() throws Exception {
+        CompletableFuture<List<TestObjectVO>> first = tool.filter(objects, "field1==f1");
+        CompletableFuture<List<TestObjectVO>> second = tool.filter(objects, "field1==f2");
+        CompletableFuture<List<TestObjectVO>> third = tool.filter(objects, "field1==f3");
+        assertThat(executor.tasks).hasSize(2);
+
+        executor.tasks.poll().run();
+        assertThat(first.get().toArray()).containsOnly(objects.get(0));
+        assertThat(executor.tasks).hasSize(2);
+
+        executor.runAll();
+        assertThat(second.get().toArray()).containsOnly(objects.get(1));
+        assertThat(third.get().toArray()).containsOnly(objects.get(2));
+    }
+
+    @Test
+    void concurrentScansAreLimited() throws Exception {
+        BlockingVO blocking = new BlockingVO();
+        List<BlockingVO> values = Lists.newArrayList(blocking);
+        ExecutorService threads = Executors.newCachedThreadPool();
+        try {
+            RsqlAsyncFilterTool limitedTool = new RsqlAsyncFilterTool(new RsqlFilterTool(), threads, 2);
+            List<CompletableFuture<List<BlockingVO>>> results = Lists.newArrayList();
+            for (int i = 0; i < 5; i++) {
+                results.add(limitedTool.filter(values, "field1==f" + i));
+            }
+
+            assertThat(blocking.twoRunning.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(100);
+            assertThat(blocking.running.get()).isEqualTo(2);
+
+            blocking.release.countDown();
+            for (CompletableFuture<List<BlockingVO>> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+            assertThat(blocking.maxRunning.get()).isEqualTo(2);
+        }
+        finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void invalidFilterFails() {
+        CompletableFuture<List<TestObjectVO>> result = tool.filter(objects, "field1==", 1L);
+
+        assertThat(executor.tasks).isEmpty();
+        ExecutionException ex = assertThrows(ExecutionException.class, result::get);
+        assertThat(ex.getCause()).isInstanceOf(RSQLParserException.class);
+    }
+
+    @Test
+    void defaultExecutor() throws Exception {
+        try (RsqlAsyncFilterTool defaultTool = new RsqlAsyncFilterTool(new RsqlFilterTool(), 1)) {
+            List<TestObjectVO> result = defaultTool.filter(objects, "field1=in=(f1,f2)").get();
+            assertThat(result.toArray()).hasSize(2).containsOnly(objects.get(0), objects.get(1));
+        }
+    }
+
+    /**
+     * Object whose getter blocks until released, recording how many scans are reading it at once.
+     */
+    public static class BlockingVO {
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final CountDownLatch twoRunning = new CountDownLatch(2);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private String field1;
+
+        public String getField1() throws InterruptedException {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            twoRunning.countDown();
+            release.await();
+            running.decrementAndGet();
+            return field1;
+        }
+    }
+
+    /**
+     * Executor holding submitted tasks until they are explicitly run.
+     */
+    private static class QueuedExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
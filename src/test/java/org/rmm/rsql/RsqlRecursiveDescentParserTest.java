@@ -0,0 +1,128 @@
+package org.rmm.rsql;
+
+import com.google.common.collect.Lists;
+import cz.jirutka.rsql.parser.RSQLParser;
+import cz.jirutka.rsql.parser.RSQLParserException;
+import cz.jirutka.rsql.parser.ast.ComparisonOperator;
+import cz.jirutka.rsql.parser.ast.RSQLOperators;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Differential tests for {@link RsqlRecursiveDescentParser} against the rsql-parser {@link RSQLParser}.
+ *
+ * @author Rob McMurray
+ */
+class RsqlRecursiveDescentParserTest {
+    private final RSQLParser rsqlParser;
+    private final RsqlRecursiveDescentParser descentParser;
+
+    RsqlRecursiveDescentParserTest() {
+        Set<ComparisonOperator> supportedOperators = RSQLOperators.defaultOperators();
+        supportedOperators.add(RsqlCustomOperators.LIKE);
+        rsqlParser = new RSQLParser(supportedOperators);
+        descentParser = new RsqlRecursiveDescentParser(supportedOperators);
+    }
+
+    @Test
+    void validQueriesMatchRsqlParser() {
+        List<String> queries = Lists.newArrayList(
+                "field1==f1",
+                " field1 == f1 ",
+                "field1!=f1",
+                "field1=in=(f1,f2,f3)",
+                "field1=in=( f1 , f2 or f3 )",
+                "field1=out=(f1)",
+                "field1==(f1)",
+                "field1=like=f",
+                "field2<1;field2<=2;field2>3;field2>=4",
+                "field2=lt=1,field2=ge=4",
+                "field1==f1,(field2!=1;field3==false)",
+                "field1==f1 and field2==1 or field3==true",
+                "field1==f1  and (field2==1 or field3==true)",
+                "((field1==f1))",
+                "field1=='single quoted'",
+                "field1==\"double \\\"quoted\\\"\"",
+                "field1=='back\\\\slash'",
+                "field1==\"\"",
+                "field1==f1;\tfield2==1",
+                "field1==été"
+        );
+
+        for (String query : queries) {
+            assertThat(descentParser.parse(query)).as(query).isEqualTo(rsqlParser.parse(query));
+        }
+    }
+
+    @Test
+    void invalidQueriesMatchRsqlParserErrors() {
+        List<String> queries = Lists.newArrayList(
+                "",
+                "\t",
+                "==f1",
+                "field1",
+                "field1==",
+                "field1==f1;",
+                "field1==f1;;field2==1",
+                "field1==f1 field2",
+                "field1==f1 and",
+                "field1==f1\tand field2==1",
+                "field1==f1)",
+                "(field1==f1",
+                "field1=in=()",
+                "field1=in=(f1 f2)",
+                "field1=~f1",
+                "field1==f1~",
+                "field1==f1~f2",
+                "field1!f1",
+                "field1=",
+                "field1==f1=f2",
+                "field1==\"unterminated",
+                "field1=='escaped end\\'",
+                "field1==f1\nfield2==1",
+                "field1==f1\r\n~",
+                "field1==f1;é==",
+                "field1=foo=f1",
+                "field1=IN=(f1)",
+                "field1==(f1,f2)"
+        );
+
+        for (String query : queries) {
+            Throwable expected = catchThrowable(() -> rsqlParser.parse(query));
+            Throwable actual = catchThrowable(() -> descentParser.parse(query));
+
+            assertThat(expected).as(query).isInstanceOf(RSQLParserException.class);
+            assertThat(actual).as(query).isInstanceOf(RSQLParserException.class);
+            assertThat(actual.getCause().getMessage()).as(query).isEqualTo(expected.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void nullQuery() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> descentParser.parse(null));
+        assertThat(ex.getMessage()).isEqualTo("query must not be null");
+    }
+
+    @Test
+    void filterToolWithRecursiveDescentParser() {
+        RsqlFilterTool tool = new RsqlFilterTool(RsqlParserType.RECURSIVE_DESCENT);
+        List<TestObjectVO> objects = Lists.newArrayList(
+                TestObjectVO.builder().field1("f1").field2(1).field3(true).build(),
+                TestObjectVO.builder().field1("f2").field2(2).field3(false).build(),
+                TestObjectVO.builder().field1("f3").field2(3).field3(true).build(),
+                TestObjectVO.builder().field1(null).field2(null).field3(null).build()
+        );
+
+        String rsqlFilter = "field1==f1,(field2!=1;field3==false)";
+
+        List<TestObjectVO> result = tool.filter(objects, rsqlFilter);
+        assertThat(result).isNotNull();
+        assertThat(result.toArray()).isNotEmpty().hasSize(2).containsOnly(objects.get(0), objects.get(1));
+    }
+}
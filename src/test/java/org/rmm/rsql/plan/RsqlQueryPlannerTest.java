@@ -0,0 +1,85 @@
+package org.rmm.rsql.plan;
+
+import com.google.common.collect.Lists;
+import cz.jirutka.rsql.parser.ast.LogicalOperator;
+import org.junit.jupiter.api.Test;
+import org.rmm.rsql.RsqlFilterTool;
+import org.rmm.rsql.TestObjectVO;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link RsqlQueryPlanner} via {@link RsqlFilterTool#explain} and {@link RsqlFilterTool#profile}.
+ *
+ * @author Rob McMurray
+ */
+class RsqlQueryPlannerTest {
+    private final RsqlFilterTool tool = new RsqlFilterTool();
+
+    @Test
+    void explainNormalizesNestedLogicalNodes() {
+        RsqlQueryPlan plan = tool.explain("field1==f1;(field2==2;field3==true),field1=in=(f2,f3)");
+
+        assertThat(plan.isProfiled()).isFalse();
+        RsqlPlanNode root = plan.getRoot();
+        assertThat(root.getLogicalOperator()).isEqualTo(LogicalOperator.OR);
+        assertThat(root.getChildren()).hasSize(2);
+
+        RsqlPlanNode and = root.getChildren().get(0);
+        assertThat(and.getLogicalOperator()).isEqualTo(LogicalOperator.AND);
+        assertThat(and.getEvaluationOrder()).isEqualTo(1);
+        assertThat(and.getChildren()).extracting(RsqlPlanNode::getExpression)
+                .containsExactly("field1=='f1'", "field2=='2'", "field3=='true'");
+        assertThat(and.getChildren()).extracting(RsqlPlanNode::getEvaluationOrder).containsExactly(1, 2, 3);
+
+        RsqlPlanNode in = root.getChildren().get(1);
+        assertThat(in.getEvaluationOrder()).isEqualTo(2);
+        assertThat(in.getAccessPath()).isEqualTo(RsqlAccessPath.SCAN);
+        assertThat(in.getEstimatedSelectivity()).isCloseTo(0.2, within(1e-9));
+        assertThat(and.getEstimatedSelectivity()).isCloseTo(0.001, within(1e-9));
+        assertThat(root.getEstimatedSelectivity()).isCloseTo(1 - 0.999 * 0.8, within(1e-9));
+    }
+
+    @Test
+    void explainUnsupportedOperator() {
+        RsqlQueryPlan plan = tool.explain("field1=like=f");
+
+        assertThat(plan.getRoot().getComparisonNode()).isNotNull();
+        assertThat(plan.getRoot().getInvocations()).isZero();
+        assertThat(plan.toString()).contains("field1=like='f' [SCAN]");
+    }
+
+    @Test
+    void profileCountsEachNode() {
+        List<TestObjectVO> objects = Lists.newArrayList(
+                TestObjectVO.builder().field1("f1").field2(1).field3(true).build(),
+                TestObjectVO.builder().field1("f2").field2(2).field3(false).build(),
+                TestObjectVO.builder().field1("f3").field2(3).field3(true).build(),
+                TestObjectVO.builder().field1(null).field2(null).field3(null).build()
+        );
+
+        RsqlQueryPlan plan = tool.profile(objects, "field1==f1,(field2!=1;field3==false)");
+
+        assertThat(plan.isProfiled()).isTrue();
+        assertThat(plan.getRowsScanned()).isEqualTo(4);
+        assertThat(plan.getRowsMatched()).isEqualTo(2);
+
+        RsqlPlanNode root = plan.getRoot();
+        assertThat(root.getInvocations()).isEqualTo(4);
+        assertThat(root.getPasses()).isEqualTo(2);
+
+        RsqlPlanNode equals = root.getChildren().get(0);
+        assertThat(equals.getInvocations()).isEqualTo(4);
+        assertThat(equals.getPasses()).isEqualTo(1);
+
+        RsqlPlanNode and = root.getChildren().get(1);
+        assertThat(and.getInvocations()).isEqualTo(3);
+        assertThat(and.getPasses()).isEqualTo(1);
+        assertThat(and.getChildren()).extracting(RsqlPlanNode::getInvocations).containsExactly(3L, 3L);
+        assertThat(and.getChildren()).extracting(RsqlPlanNode::getPasses).containsExactly(3L, 1L);
+        assertThat(and.getNanos()).isPositive();
+    }
+}